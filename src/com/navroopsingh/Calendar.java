@@ -1,11 +1,14 @@
 package com.navroopsingh;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.InputMismatchException;
+import java.util.List;
 import java.util.TreeMap;
 
 
@@ -26,18 +29,34 @@ import java.util.TreeMap;
  *   - This implementation is NOT threadsafe because it uses a TreeMap and HashMap.
  *     The design decision was made to implement quicker range queries since
  *     TreeMaps have good performance for such queries but are not threadsafe.
+ *     The CalendarDigest and ViewCache owned by the calendar are not threadsafe either.
+ *
+ *   - A CalendarDigest is kept up to date on every mutation so that two calendar
+ *     replicas can be compared by root hash and reconciled day by day.
+ *
+ *   - Rendered day and week views are cached in a ViewCache. A mutation only
+ *     invalidates the day and week views that contain the affected event.
  */
 public class Calendar {
     // Set the length of the calendar to 1 year
     private static final int CALENDAR_LENGTH = 1;
+    // Time zone used to decide what "now" and "today" are for the calendar
+    static final ZoneId CALENDAR_ZONE = ZoneId.of("America/Los_Angeles");
+    private static final DateTimeFormatter VIEW_DATE_FORMATTER = DateTimeFormatter.ofPattern("MM/dd/yyyy");
     // Stores mapping from the event name to event object for single event lookup
     protected HashMap<String, Event> eventsHashMap;
     // Stores mapping from event datetime to event object for range queries
     protected TreeMap<LocalDateTime, Event> eventsTreeMap;
+    // Merkle tree of per-day hashes used to compare and reconcile replicas
+    protected CalendarDigest digest;
+    // Bounded cache of rendered day and week views
+    protected ViewCache viewCache;
 
     Calendar() {
         this.eventsHashMap = new HashMap<String, Event>();
         this.eventsTreeMap = new TreeMap<LocalDateTime, Event>();
+        this.digest = new CalendarDigest();
+        this.viewCache = new ViewCache();
     }
 
     /*
@@ -45,9 +64,7 @@ public class Calendar {
      */
     public void addEvent(String eventTitle, LocalDateTime eventDateTime, String eventNotes)
                          throws InputMismatchException {
-        LocalDateTime currentDateTime = LocalDateTime.now(ZoneId.of("America/Los_Angeles"));
-        System.out.println(currentDateTime);
-        System.out.println(eventDateTime);
+        LocalDateTime currentDateTime = LocalDateTime.now(CALENDAR_ZONE);
 
         // Ensure that the event date is not further than 1 year from now
         if (currentDateTime.plusYears(CALENDAR_LENGTH).isBefore(eventDateTime) ||
@@ -55,11 +72,7 @@ public class Calendar {
             throw new InputMismatchException("Event must be scheduled within one year from now.");
         }
 
-        Event event = new Event(eventTitle, eventDateTime, eventNotes);
-        // Event Title and DateTime are used to uniquely identify an event
-        this.eventsHashMap.put(Calendar.createEventKey(eventTitle, eventDateTime), event);
-        // Store the Event DateTime for efficient range queries
-        this.eventsTreeMap.put(eventDateTime, event);
+        this.scheduleEvent(new Event(eventTitle, eventDateTime, eventNotes));
     }
 
     /*
@@ -72,7 +85,7 @@ public class Calendar {
      */
     public void addEvent(String eventTitle, LocalDateTime eventDateTime, String eventNotes,
                          String recurringEvent) throws InputMismatchException {
-        LocalDateTime currentDateTime = LocalDateTime.now(ZoneId.of("America/Los_Angeles"));
+        LocalDateTime currentDateTime = LocalDateTime.now(CALENDAR_ZONE);
 
         // Ensure that the event date is not further than 1 year from now and that
         // the event date is not before the current date
@@ -82,11 +95,7 @@ public class Calendar {
         }
 
         do {
-            Event event = new Event(eventTitle, eventDateTime, eventNotes);
-            // Event Title and DateTime are used to uniquely identify an event
-            this.eventsHashMap.put(Calendar.createEventKey(eventTitle, eventDateTime), event);
-            // Use the Event DateTime as the key for efficient range queries
-            this.eventsTreeMap.put(eventDateTime, event);
+            this.scheduleEvent(new Event(eventTitle, eventDateTime, eventNotes));
             // Create a new DateTime depending on the frequency of the event
             switch (recurringEvent) {
                 case "daily":
@@ -115,8 +124,7 @@ public class Calendar {
         String eventKey = Calendar.createEventKey(eventTitle, eventDateTime);
         if (this.eventsHashMap.containsKey(eventKey)) {
             Event event = this.eventsHashMap.get(eventKey);
-            this.eventsHashMap.remove(eventKey);
-            this.eventsTreeMap.remove(eventDateTime);
+            this.unscheduleEvent(event);
             return event;
         } else {
             return null;
@@ -145,7 +153,10 @@ public class Calendar {
 
         // Only updating the eventTitle
         Event event = this.eventsHashMap.get(createEventKey(eventTitle, eventDateTime));
+        this.digest.removeEvent(event);
         event.updateEventTitle(updatedTitle);
+        this.digest.addEvent(event);
+        this.viewCache.invalidate(eventDateTime.toLocalDate());
         // Replace current HashMap entry with updated title
         this.eventsHashMap.remove(Calendar.createEventKey(eventTitle, eventDateTime));
         this.eventsHashMap.put(Calendar.createEventKey(updatedTitle, eventDateTime), event);
@@ -160,11 +171,10 @@ public class Calendar {
 
         if (this.isValidCalendarDate(updatedDateTime)) {
             Event event = this.eventsHashMap.get(eventKey);
+            // Take the event off the calendar and re-schedule it at the new DateTime
+            this.unscheduleEvent(event);
             event.updateEventDateTime(updatedDateTime);
-            this.eventsHashMap.remove(eventKey);
-            this.eventsHashMap.put(Calendar.createEventKey(eventTitle, updatedDateTime), event);
-            this.eventsTreeMap.remove(currentDateTime);
-            this.eventsTreeMap.put(updatedDateTime, event);
+            this.scheduleEvent(event);
         }
     }
     
@@ -175,7 +185,83 @@ public class Calendar {
         }
 
         Event event = this.eventsHashMap.get(eventKey);
+        this.digest.removeEvent(event);
         event.updateEventNotes(eventNotes);
+        this.digest.addEvent(event);
+        this.viewCache.invalidate(eventDateTime.toLocalDate());
+    }
+
+    /*
+     Returns the events scheduled on the given day in chronological order.
+     */
+    public List<Event> getEventsOnDay(LocalDate day) {
+        return new ArrayList<Event>(this.eventsTreeMap.subMap(day.atStartOfDay(),
+                day.plusDays(1).atStartOfDay()).values());
+    }
+
+    /*
+     Returns the rendered list of events scheduled on the given day.
+     */
+    public String viewDay(LocalDate day) {
+        String renderedView = this.viewCache.getDayView(day);
+        if (renderedView == null) {
+            renderedView = this.renderView("Events on " + day.format(VIEW_DATE_FORMATTER) + ": \n",
+                    day, day.plusDays(1));
+            this.viewCache.putDayView(day, renderedView);
+        }
+        return renderedView;
+    }
+
+    /*
+     Returns the rendered list of events scheduled in the week (Sunday to
+     Saturday) containing the given day.
+     */
+    public String viewWeek(LocalDate day) {
+        String renderedView = this.viewCache.getWeekView(day);
+        if (renderedView == null) {
+            LocalDate weekStart = ViewCache.startOfWeek(day);
+            renderedView = this.renderView("Events for the week of " + weekStart.format(VIEW_DATE_FORMATTER) + ": \n",
+                    weekStart, weekStart.plusWeeks(1));
+            this.viewCache.putWeekView(day, renderedView);
+        }
+        return renderedView;
+    }
+
+    public ViewCache getViewCache() {
+        return this.viewCache;
+    }
+
+    public CalendarDigest getDigest() {
+        return this.digest;
+    }
+
+    /*
+     Returns the days whose events differ between this calendar and the other
+     calendar, found by comparing the two digests.
+     */
+    public List<LocalDate> differingDays(Calendar other) {
+        return this.digest.differingDays(other.digest);
+    }
+
+    /*
+     Makes this calendar a replica of the source calendar by replacing the events
+     on every day that differs with copies of the source's events for that day.
+     Days that already match are not touched. Returns the number of days that
+     were reconciled.
+     */
+    public int reconcileWith(Calendar source) {
+        List<LocalDate> days = this.differingDays(source);
+        for (LocalDate day : days) {
+            for (Event event : this.getEventsOnDay(day)) {
+                this.unscheduleEvent(event);
+            }
+            for (Event event : source.getEventsOnDay(day)) {
+                // Copy the event so the replicas can be updated independently
+                this.scheduleEvent(new Event(event.getEventTitle(), event.getEventDateTime(),
+                                             event.getEventNotes()));
+            }
+        }
+        return days.size();
     }
 
     /*
@@ -191,6 +277,40 @@ public class Calendar {
         return toReturn.toString();
     }
 
+    private String renderView(String header, LocalDate startDay, LocalDate endDay) {
+        StringBuilder toReturn = new StringBuilder();
+        toReturn.append(header);
+        for (Event event : this.eventsTreeMap.subMap(startDay.atStartOfDay(), endDay.atStartOfDay()).values()) {
+            toReturn.append(event.toString() + "\n");
+        }
+        return toReturn.toString();
+    }
+
+    /*
+     * Places the event in both maps and the digest. Only one event can be
+     * scheduled for a specific time, so any event already at that time is
+     * taken off the calendar.
+     */
+    private void scheduleEvent(Event event) {
+        Event replacedEvent = this.eventsTreeMap.get(event.getEventDateTime());
+        if (replacedEvent != null) {
+            this.unscheduleEvent(replacedEvent);
+        }
+        // Event Title and DateTime are used to uniquely identify an event
+        this.eventsHashMap.put(Calendar.createEventKey(event.getEventTitle(), event.getEventDateTime()), event);
+        // Use the Event DateTime as the key for efficient range queries
+        this.eventsTreeMap.put(event.getEventDateTime(), event);
+        this.digest.addEvent(event);
+        this.viewCache.invalidate(event.getEventDateTime().toLocalDate());
+    }
+
+    private void unscheduleEvent(Event event) {
+        this.eventsHashMap.remove(Calendar.createEventKey(event.getEventTitle(), event.getEventDateTime()));
+        this.eventsTreeMap.remove(event.getEventDateTime());
+        this.digest.removeEvent(event);
+        this.viewCache.invalidate(event.getEventDateTime().toLocalDate());
+    }
+
     protected static String createEventKey(String eventTitle, LocalDateTime eventDateTime) {
         return eventTitle + ";" + eventDateTime.toString();
     }
@@ -0,0 +1,172 @@
+package com.navroopsingh;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+
+/*
+ * Merkle digest of a Calendar's events, used to compare and reconcile replicas.
+ *
+ * Each day bucket hashes to the sum of its events' hashes, so an event is added
+ * or removed without rehashing the rest of its day. Days are grouped into fixed
+ * blocks of 2^TREE_DEPTH epoch days, each a binary Merkle tree stored as a long[]
+ * heap, so a change recomputes TREE_DEPTH nodes and finding k differing days
+ * costs O(k * TREE_DEPTH).
+ */
+class CalendarDigest {
+    // Each block covers 2^9 = 512 days, more than the one year a calendar holds
+    private static final int TREE_DEPTH = 9;
+    private static final int BLOCK_DAYS = 1 << TREE_DEPTH;
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final long MIX_MULTIPLIER = 0x9e3779b97f4a7c15L;
+
+    // Stores the Merkle tree of every non-empty block, keyed by block index. In
+    // each tree node 1 is the root and the children of node i are 2i and 2i + 1,
+    // so the leaf for the j-th day of the block is node BLOCK_DAYS + j.
+    private TreeMap<Long, long[]> blocks;
+    private long rootHash;
+    private boolean rootHashIsStale;
+
+    CalendarDigest() {
+        this.blocks = new TreeMap<Long, long[]>();
+        this.rootHash = 0;
+        this.rootHashIsStale = false;
+    }
+
+    /*
+     * Adds the event's hash to the bucket of the day it is scheduled on.
+     */
+    void addEvent(Event event) {
+        this.updateBucket(event.getEventDateTime().toLocalDate(), CalendarDigest.hashEvent(event));
+    }
+
+    /*
+     * Removes the event's hash from the bucket of the day it is scheduled on.
+     * The event must not have been modified since it was added.
+     */
+    void removeEvent(Event event) {
+        this.updateBucket(event.getEventDateTime().toLocalDate(), -CalendarDigest.hashEvent(event));
+    }
+
+    /*
+     * Returns the root hash of the digest, or 0 for an empty calendar.
+     */
+    public long getRootHash() {
+        if (this.rootHashIsStale) {
+            long hash = 0;
+            for (Map.Entry<Long, long[]> block : this.blocks.entrySet()) {
+                hash = CalendarDigest.combine(hash, CalendarDigest.combine(block.getKey(), block.getValue()[1]));
+            }
+            this.rootHash = hash;
+            this.rootHashIsStale = false;
+        }
+        return this.rootHash;
+    }
+
+    /*
+     * Returns the hash of a single day bucket, or 0 if no events fall on that day.
+     */
+    public long getDayHash(LocalDate day) {
+        long[] tree = this.blocks.get(Math.floorDiv(day.toEpochDay(), BLOCK_DAYS));
+        return tree == null ? 0 : tree[BLOCK_DAYS + (int) Math.floorMod(day.toEpochDay(), BLOCK_DAYS)];
+    }
+
+    /*
+     * Returns the days, in ascending order, whose buckets differ between this
+     * digest and the other digest.
+     */
+    public List<LocalDate> differingDays(CalendarDigest other) {
+        List<LocalDate> days = new ArrayList<LocalDate>();
+        if (this.getRootHash() == other.getRootHash()) {
+            return days;
+        }
+
+        TreeSet<Long> blockIndexes = new TreeSet<Long>(this.blocks.keySet());
+        blockIndexes.addAll(other.blocks.keySet());
+        for (long blockIndex : blockIndexes) {
+            CalendarDigest.collectDifferingDays(blockIndex, this.blocks.get(blockIndex),
+                                                other.blocks.get(blockIndex), 1, days);
+        }
+        return days;
+    }
+
+    private static void collectDifferingDays(long blockIndex, long[] tree, long[] otherTree, int node,
+                                             List<LocalDate> days) {
+        long hash = tree == null ? 0 : tree[node];
+        long otherHash = otherTree == null ? 0 : otherTree[node];
+        if (hash == otherHash) {
+            return;
+        }
+
+        if (node >= BLOCK_DAYS) {
+            days.add(LocalDate.ofEpochDay(blockIndex * BLOCK_DAYS + node - BLOCK_DAYS));
+        } else {
+            CalendarDigest.collectDifferingDays(blockIndex, tree, otherTree, 2 * node, days);
+            CalendarDigest.collectDifferingDays(blockIndex, tree, otherTree, 2 * node + 1, days);
+        }
+    }
+
+    private void updateBucket(LocalDate day, long delta) {
+        long blockIndex = Math.floorDiv(day.toEpochDay(), BLOCK_DAYS);
+        long[] tree = this.blocks.get(blockIndex);
+        if (tree == null) {
+            tree = new long[2 * BLOCK_DAYS];
+            this.blocks.put(blockIndex, tree);
+        }
+
+        int node = BLOCK_DAYS + (int) Math.floorMod(day.toEpochDay(), BLOCK_DAYS);
+        tree[node] += delta;
+
+        // Recompute every ancestor of the leaf up to the block root
+        while (node > 1) {
+            node /= 2;
+            long leftHash = tree[2 * node];
+            long rightHash = tree[2 * node + 1];
+            tree[node] = leftHash == 0 && rightHash == 0 ? 0 : CalendarDigest.combine(leftHash, rightHash);
+        }
+
+        if (tree[1] == 0) {
+            this.blocks.remove(blockIndex);
+        }
+        this.rootHashIsStale = true;
+    }
+
+    /*
+     * Hashes the event title, datetime, and notes with 64-bit FNV-1a.
+     */
+    private static long hashEvent(Event event) {
+        String eventKey = Calendar.createEventKey(event.getEventTitle(), event.getEventDateTime());
+        long hash = FNV_OFFSET_BASIS;
+        hash = CalendarDigest.fnv(hash, eventKey);
+        hash = CalendarDigest.fnv(hash, ";");
+        hash = CalendarDigest.fnv(hash, event.getEventNotes());
+        // Never return 0 so that an event always changes its bucket
+        return hash == 0 ? 1 : hash;
+    }
+
+    private static long fnv(long hash, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /*
+     * Order-dependent combination of two hashes using the MurmurHash3 finalizer.
+     */
+    private static long combine(long leftHash, long rightHash) {
+        long hash = leftHash * MIX_MULTIPLIER + rightHash;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash == 0 ? 1 : hash;
+    }
+}
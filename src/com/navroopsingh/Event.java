@@ -4,6 +4,8 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
 public class Event {
+    // DateTimeFormatter is immutable, so one instance is shared by every Event
+    private static final DateTimeFormatter EVENT_DATE_FORMATTER = DateTimeFormatter.ofPattern("MM/dd/yyyy @ h:mm a");
     protected String eventTitle;
     protected String eventNotes;
     protected LocalDateTime eventDateTime;
@@ -48,8 +50,7 @@ public class Event {
     public String toString() {
         int numCharactersBetweenPipes = 20;
         int lengthOfEventTitle = this.getEventTitle().length();
-        DateTimeFormatter eventDateFormatter = DateTimeFormatter.ofPattern("MM/dd/yyyy @ h:mm a");
-        return this.eventDateTime.format(eventDateFormatter) + " | " +
+        return this.eventDateTime.format(EVENT_DATE_FORMATTER) + " | " +
                 this.getEventTitle() +
                 this.createEmptyString(numCharactersBetweenPipes - lengthOfEventTitle) +
                 " | Notes: " + this.getEventNotes();
@@ -57,9 +58,9 @@ public class Event {
 
     /*
      * Method that creates an empty string count characters long.
-     * Used for padding output.
+     * Used for padding output. Titles longer than the padding get none.
      */
     private static String createEmptyString(int count) {
-        return new String(new char[count]).replace("\0", " ");
+        return new String(new char[Math.max(0, count)]).replace("\0", " ");
     }
 }
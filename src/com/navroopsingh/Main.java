@@ -1,7 +1,11 @@
 package com.navroopsingh;
 
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Paths;
 import java.text.ParseException;
 import java.time.DateTimeException;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
 
@@ -11,11 +15,24 @@ public class Main {
     static final HashSet commandsSet = new HashSet(commands);
     Calendar calendar;
     Scanner scanner = new Scanner(System.in);
+    // Writes each calendar operation to a workload trace when started with --record
+    PrintWriter traceWriter;
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        if (args.length != 0 && (args.length != 2 || !args[0].equals("--record"))) {
+            System.out.println("Usage: Main [--record TRACE_FILE]");
+            return;
+        }
         Main.printWelcomeMessage();
         Main mainProgram = new Main();
+        if (args.length == 2) {
+            // Record this session so it can be replayed with Workload
+            mainProgram.traceWriter = WorkloadTrace.openRecording(Paths.get(args[1]), LocalDateTime.now());
+        }
         mainProgram.beginCalendarProgram();
+        if (mainProgram.traceWriter != null) {
+            mainProgram.traceWriter.close();
+        }
     }
 
     private void beginCalendarProgram() {
@@ -105,6 +122,7 @@ public class Main {
             LocalDateTime eventDateTime = (LocalDateTime) eventInfo.get(1);
 
             // Fetch the event from the calendar
+            recordOperation(new WorkloadTrace.Operation(WorkloadTrace.OperationType.FIND, eventTitle, eventDateTime, ""));
             Event event = calendar.findEvent(eventTitle, eventDateTime);
             if (event == null) {
                 System.out.println("    Event not found. Try again");
@@ -112,9 +130,25 @@ public class Main {
                 System.out.println(event.toString());
             }
         } else if (event_indicator.equals( "events" )) {
-            // Just print out the entire calendar for now. Add functionality for
-            // range search later.
-            System.out.println(calendar);
+            // Get the range of events to view from user input
+            String viewRange = "";
+            while (!viewRange.matches("\\ball|today|week\\b")) {
+                System.out.print("      Enter the range of events to view: (one of [all, today, week]): ");
+                viewRange = scanner.nextLine();
+            }
+
+            // Use the calendar's time zone so "today" matches the day the calendar treats as today
+            LocalDate today = LocalDate.now(Calendar.CALENDAR_ZONE);
+            if (viewRange.equals("today")) {
+                recordOperation(WorkloadTrace.Operation.view("day", today.atStartOfDay()));
+                System.out.println(calendar.viewDay(today));
+            } else if (viewRange.equals("week")) {
+                recordOperation(WorkloadTrace.Operation.view("week", today.atStartOfDay()));
+                System.out.println(calendar.viewWeek(today));
+            } else {
+                recordOperation(WorkloadTrace.Operation.view("all", today.atStartOfDay()));
+                System.out.println(calendar);
+            }
         }
     }
 
@@ -142,6 +176,7 @@ public class Main {
         }
 
         // Schedule new event on calendar from obtained user input
+        recordOperation(WorkloadTrace.Operation.insert(eventTitle, eventDateTime, eventNotes, repeatType));
         try { // Try to schedule an event with the user-set parameters
             if (repeatType.matches("none$")) {
                 calendar.addEvent(eventTitle, eventDateTime, eventNotes);
@@ -161,12 +196,14 @@ public class Main {
         LocalDateTime eventDateTime = (LocalDateTime) eventInfo.get(1);
 
         // Fetch the event from the calendar
+        recordOperation(new WorkloadTrace.Operation(WorkloadTrace.OperationType.FIND, eventTitle, eventDateTime, ""));
         Event event = calendar.findEvent(eventTitle, eventDateTime);
         if (event == null) {
             System.out.println("    Event not found. Try again");
             return;
         }
 
+        recordOperation(new WorkloadTrace.Operation(WorkloadTrace.OperationType.DELETE, eventTitle, eventDateTime, ""));
         calendar.removeEvent(eventTitle, eventDateTime);
         System.out.printf("The following event has been removed: %s\n", event);
     }
@@ -179,6 +216,7 @@ public class Main {
         LocalDateTime eventDateTime = (LocalDateTime) eventInfo.get(1);
 
         // Fetch the event from the calendar
+        recordOperation(new WorkloadTrace.Operation(WorkloadTrace.OperationType.FIND, eventTitle, eventDateTime, ""));
         Event event = calendar.findEvent(eventTitle, eventDateTime);
         if (event == null) {
             System.out.println("    Event not found. Try again");
@@ -203,12 +241,16 @@ public class Main {
                 newEventTitle = scanner.nextLine();
             }
             // Update the event title
+            recordOperation(new WorkloadTrace.Operation(WorkloadTrace.OperationType.UPDATE_TITLE, eventTitle,
+                                                        eventDateTime, newEventTitle));
             calendar.updateEventTitle(eventTitle, eventDateTime, newEventTitle);
         } else if (field_to_update.equals("date") || field_to_update.equals("time")) {
             // Get the new event DateTime from user input
             LocalDateTime newEventDateTime = parseDateTime(eventTitle);
 
             // Update the event DateTime
+            recordOperation(new WorkloadTrace.Operation(WorkloadTrace.OperationType.UPDATE_DATETIME, eventTitle,
+                                                        eventDateTime, newEventDateTime.toString()));
             try {
                 calendar.updateEventDateTime(eventTitle, eventDateTime, newEventDateTime);
             } catch (InputMismatchException e) {
@@ -224,12 +266,25 @@ public class Main {
                     System.out.println("        Incorrect format for event notes. Try again.");
                 }
             }
+            recordOperation(new WorkloadTrace.Operation(WorkloadTrace.OperationType.UPDATE_NOTES, eventTitle,
+                                                        eventDateTime, eventNotes));
             calendar.updateEventNotes(eventTitle, eventDateTime, eventNotes);
         } else {
             System.out.println("Error while updating event. Please try again.");
         }
     }
 
+    /*
+     * Appends the operation to the workload trace if this session is being recorded.
+     */
+    private void recordOperation(WorkloadTrace.Operation operation) {
+        if (traceWriter != null) {
+            traceWriter.println(operation);
+            // Flush each operation so the trace survives the session being killed
+            traceWriter.flush();
+        }
+    }
+
     /*
      * Returns a ArrayList of length 2 with [eventTitle, eventDateTime]. The
      * event title is extracted from user input and a LocalDateTime object (eventDateTime)
@@ -0,0 +1,118 @@
+package com.navroopsingh;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+/*
+ * Bounded LRU cache of rendered day and week views, keyed by the day or by the
+ * Sunday that starts the week (e.g. "day;2015-11-26", "week;2015-11-22").
+ * Calendar invalidates the day and week containing an event whenever that event
+ * is added, removed, or updated, so all other views stay cached.
+ */
+class ViewCache {
+    private static final int DEFAULT_MAX_VIEWS = 64;
+    private final int maxViews;
+    private LinkedHashMap<String, String> renderedViews;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    ViewCache() {
+        this(DEFAULT_MAX_VIEWS);
+    }
+
+    ViewCache(int maxViews) {
+        if (maxViews < 1) {
+            throw new IllegalArgumentException("View cache must hold at least one view.");
+        }
+        this.maxViews = maxViews;
+        this.renderedViews = new LinkedHashMap<String, String>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                if (size() > ViewCache.this.maxViews) {
+                    ViewCache.this.evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /*
+     * Returns the cached day view or null if it must be rendered.
+     */
+    String getDayView(LocalDate day) {
+        return this.lookup(ViewCache.createDayKey(day));
+    }
+
+    void putDayView(LocalDate day, String renderedView) {
+        this.renderedViews.put(ViewCache.createDayKey(day), renderedView);
+    }
+
+    /*
+     * Returns the cached view of the week containing day or null if it must be rendered.
+     */
+    String getWeekView(LocalDate day) {
+        return this.lookup(ViewCache.createWeekKey(day));
+    }
+
+    void putWeekView(LocalDate day, String renderedView) {
+        this.renderedViews.put(ViewCache.createWeekKey(day), renderedView);
+    }
+
+    /*
+     * Drops the cached views of the day and of the week containing it.
+     */
+    void invalidate(LocalDate day) {
+        this.renderedViews.remove(ViewCache.createDayKey(day));
+        this.renderedViews.remove(ViewCache.createWeekKey(day));
+    }
+
+    int size() {
+        return this.renderedViews.size();
+    }
+
+    long getHits() {
+        return this.hits;
+    }
+
+    long getMisses() {
+        return this.misses;
+    }
+
+    long getEvictions() {
+        return this.evictions;
+    }
+
+    @Override
+    public String toString() {
+        return "View cache: " + this.size() + "/" + this.maxViews + " views, " + this.hits + " hits, " +
+                this.misses + " misses, " + this.evictions + " evictions";
+    }
+
+    static LocalDate startOfWeek(LocalDate day) {
+        return day.with(TemporalAdjusters.previousOrSame(DayOfWeek.SUNDAY));
+    }
+
+    private String lookup(String viewKey) {
+        String renderedView = this.renderedViews.get(viewKey);
+        if (renderedView == null) {
+            this.misses++;
+        } else {
+            this.hits++;
+        }
+        return renderedView;
+    }
+
+    private static String createDayKey(LocalDate day) {
+        return "day;" + day.toString();
+    }
+
+    private static String createWeekKey(LocalDate day) {
+        return "week;" + ViewCache.startOfWeek(day).toString();
+    }
+}
@@ -0,0 +1,422 @@
+package com.navroopsingh;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.InputMismatchException;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+
+/*
+ * Command line tool for capacity planning. Usage is as follows:
+ *
+ *   * Generate a reproducible trace *
+ *   java com.navroopsingh.Workload generate --out trace.txt [--seed 42] [--events 1000] [--operations 100000]
+ *
+ *   * Replay a generated trace or one recorded with "Main --record trace.txt" *
+ *   java com.navroopsingh.Workload replay --trace trace.txt [--rate 5000] [--runs 3]
+ *
+ *   * Generate a trace in memory and replay it *
+ *   java com.navroopsingh.Workload run [--seed 42] [--events 1000] [--operations 100000] [--rate 5000] [--runs 3]
+ *
+ * Each run replays the trace against a fresh Calendar. At a fixed rate, latency
+ * is measured from the time an operation was scheduled to start, so a stalled
+ * calendar is charged for the operations queued behind it.
+ */
+public class Workload {
+    private static final long DEFAULT_SEED = 42;
+    private static final int DEFAULT_EVENTS = 1000;
+    private static final int DEFAULT_OPERATIONS = 100000;
+    // Fraction of seed calendar events that are recurring, with at least one of each RecurringType
+    private static final double RECURRING_FRACTION = 0.05;
+    // Fraction of finds, updates, and deletes that target an event that does not exist
+    static final double MISSING_EVENT_FRACTION = 0.1;
+    // Events are generated between 1 and 350 days after the trace base datetime
+    private static final int FIRST_EVENT_DAY = 1;
+    private static final int LAST_EVENT_DAY = 350;
+    // Relative weights of the operations in the mixed phase of a generated trace
+    private static final Map<WorkloadTrace.OperationType, Integer> OPERATION_WEIGHTS =
+            new EnumMap<WorkloadTrace.OperationType, Integer>(WorkloadTrace.OperationType.class);
+    static {
+        OPERATION_WEIGHTS.put(WorkloadTrace.OperationType.FIND, 40);
+        OPERATION_WEIGHTS.put(WorkloadTrace.OperationType.VIEW, 20);
+        OPERATION_WEIGHTS.put(WorkloadTrace.OperationType.INSERT, 15);
+        OPERATION_WEIGHTS.put(WorkloadTrace.OperationType.UPDATE_TITLE, 5);
+        OPERATION_WEIGHTS.put(WorkloadTrace.OperationType.UPDATE_DATETIME, 5);
+        OPERATION_WEIGHTS.put(WorkloadTrace.OperationType.UPDATE_NOTES, 5);
+        OPERATION_WEIGHTS.put(WorkloadTrace.OperationType.DELETE, 10);
+    }
+    private static final String USAGE =
+            "Usage: Workload (generate|replay|run) [--seed N] [--events N] [--operations N] " +
+            "[--out FILE] [--trace FILE] [--rate OPS_PER_SECOND] [--runs N]";
+    private static final List<String> OPTION_NAMES =
+            Arrays.asList("seed", "events", "operations", "out", "trace", "rate", "runs");
+    private static final String[] NOTE_WORDS = {
+            "review", "lunch", "call", "sync", "budget", "design", "team", "project",
+            "dentist", "gym", "flight", "dinner", "planning", "report", "launch", "retro"
+    };
+
+    private final Random random;
+    private final LocalDateTime baseDateTime;
+    // Scratch calendar that tracks which events exist while a trace is generated
+    Calendar calendar;
+    private int nextEventId;
+
+    Workload(long seed, LocalDateTime baseDateTime) {
+        this.random = new Random(seed);
+        this.baseDateTime = baseDateTime.truncatedTo(ChronoUnit.MINUTES);
+        this.calendar = new Calendar();
+        this.nextEventId = 0;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0 || !args[0].matches("generate|replay|run")) {
+            System.out.println(USAGE);
+            return;
+        }
+
+        HashMap<String, String> options;
+        long seed;
+        int events;
+        int operations;
+        double rate;
+        int runs;
+        try {
+            options = Workload.parseOptions(args);
+            seed = Long.parseLong(options.getOrDefault("seed", String.valueOf(DEFAULT_SEED)));
+            events = Integer.parseInt(options.getOrDefault("events", String.valueOf(DEFAULT_EVENTS)));
+            operations = Integer.parseInt(options.getOrDefault("operations", String.valueOf(DEFAULT_OPERATIONS)));
+            rate = Double.parseDouble(options.getOrDefault("rate", "0"));
+            runs = Integer.parseInt(options.getOrDefault("runs", "1"));
+            if (events < 0 || operations < 0 || rate < 0 || runs < 1) {
+                throw new IllegalArgumentException("--events, --operations and --rate must not be negative " +
+                                                   "and --runs must be at least 1");
+            } else if (args[0].equals("generate") && !options.containsKey("out")) {
+                throw new IllegalArgumentException("generate requires --out FILE");
+            } else if (args[0].equals("replay") && !options.containsKey("trace")) {
+                throw new IllegalArgumentException("replay requires --trace FILE");
+            }
+        } catch (IllegalArgumentException e) {
+            // Also catches NumberFormatException from malformed option values
+            System.out.println("Invalid arguments: " + e.getMessage());
+            System.out.println(USAGE);
+            return;
+        }
+
+        WorkloadTrace trace;
+        switch (args[0]) {
+            case "generate":
+                trace = new Workload(seed, LocalDateTime.now()).generate(events, operations);
+                trace.write(Paths.get(options.get("out")));
+                System.out.printf("Wrote %d operations to %s\n", trace.getOperations().size(), options.get("out"));
+                return;
+            case "replay":
+                trace = WorkloadTrace.read(Paths.get(options.get("trace")));
+                break;
+            default:
+                trace = new Workload(seed, LocalDateTime.now()).generate(events, operations);
+                break;
+        }
+
+        // Move the trace forward so its events fall within one year of today
+        trace = trace.shiftedTo(LocalDateTime.now());
+        for (int run = 1; run <= runs; run++) {
+            System.out.printf("Run %d of %d\n", run, runs);
+            System.out.println(Workload.replay(trace, rate));
+        }
+    }
+
+    /*
+     * Generates a trace that inserts a calendar of the given number of events
+     * and then applies the given number of mixed operations to it. The first
+     * seed events cycle through every RecurringType, so any calendar of at least
+     * RecurringType.values().length events contains each type.
+     */
+    WorkloadTrace generate(int events, int operations) {
+        WorkloadTrace trace = new WorkloadTrace(this.baseDateTime);
+        RecurringType[] recurringTypes = RecurringType.values();
+        int recurringEvents = Math.min(events, Math.max(recurringTypes.length,
+                                                        (int) Math.round(events * RECURRING_FRACTION)));
+        for (int i = 0; i < events; i++) {
+            String recurringEvent = i < recurringEvents ? recurringTypes[i % recurringTypes.length].name().toLowerCase()
+                                                        : "none";
+            this.addToTrace(trace, this.generateInsert(recurringEvent));
+        }
+
+        int totalWeight = 0;
+        for (int weight : OPERATION_WEIGHTS.values()) {
+            totalWeight += weight;
+        }
+        for (int i = 0; i < operations; i++) {
+            int choice = this.random.nextInt(totalWeight);
+            for (Map.Entry<WorkloadTrace.OperationType, Integer> entry : OPERATION_WEIGHTS.entrySet()) {
+                choice -= entry.getValue();
+                if (choice < 0) {
+                    this.addToTrace(trace, this.generateOperation(entry.getKey()));
+                    break;
+                }
+            }
+        }
+        return trace;
+    }
+
+    private void addToTrace(WorkloadTrace trace, WorkloadTrace.Operation operation) {
+        trace.add(operation);
+        Workload.apply(this.calendar, operation);
+    }
+
+    private WorkloadTrace.Operation generateInsert(String recurringEvent) {
+        LocalDateTime eventDateTime = this.randomDateTime();
+        if (!recurringEvent.equals("none")) {
+            // Start recurring events early in the year so they repeat several times
+            eventDateTime = this.baseDateTime.plusDays(FIRST_EVENT_DAY + this.random.nextInt(30))
+                    .plusMinutes(this.random.nextInt(24 * 60));
+        }
+        return WorkloadTrace.Operation.insert(this.randomTitle(), eventDateTime, this.randomNotes(), recurringEvent);
+    }
+
+    private WorkloadTrace.Operation generateOperation(WorkloadTrace.OperationType type) {
+        switch (type) {
+            case INSERT:
+                return this.generateInsert("none");
+            case VIEW:
+                // Day views are the most common read, followed by week views
+                int viewChoice = this.random.nextInt(100);
+                String viewRange = viewChoice < 60 ? "day" : viewChoice < 98 ? "week" : "all";
+                return WorkloadTrace.Operation.view(viewRange, this.randomDateTime());
+            default:
+                break;
+        }
+
+        // The remaining operations act on an existing event
+        Event event = this.randomExistingEvent();
+        String eventTitle = event == null ? this.randomTitle() : event.getEventTitle();
+        LocalDateTime eventDateTime = event == null ? this.randomDateTime() : event.getEventDateTime();
+        switch (type) {
+            case UPDATE_TITLE:
+                return new WorkloadTrace.Operation(type, eventTitle, eventDateTime, this.randomTitle());
+            case UPDATE_DATETIME:
+                return new WorkloadTrace.Operation(type, eventTitle, eventDateTime, this.randomDateTime().toString());
+            case UPDATE_NOTES:
+                return new WorkloadTrace.Operation(type, eventTitle, eventDateTime, this.randomNotes());
+            default:
+                return new WorkloadTrace.Operation(type, eventTitle, eventDateTime, "");
+        }
+    }
+
+    /*
+     * Returns the first event at or after a random datetime, or null for the
+     * fraction of operations that should target a missing event.
+     */
+    private Event randomExistingEvent() {
+        if (this.calendar.eventsTreeMap.isEmpty() || this.random.nextDouble() < MISSING_EVENT_FRACTION) {
+            return null;
+        }
+        Map.Entry<LocalDateTime, Event> entry = this.calendar.eventsTreeMap.ceilingEntry(this.randomDateTime());
+        if (entry == null) {
+            entry = this.calendar.eventsTreeMap.firstEntry();
+        }
+        return entry.getValue();
+    }
+
+    private LocalDateTime randomDateTime() {
+        int minutes = this.random.nextInt((LAST_EVENT_DAY - FIRST_EVENT_DAY) * 24 * 60);
+        return this.baseDateTime.plusDays(FIRST_EVENT_DAY).plusMinutes(minutes);
+    }
+
+    private String randomTitle() {
+        return NOTE_WORDS[this.random.nextInt(NOTE_WORDS.length)] + " " + this.nextEventId++;
+    }
+
+    private String randomNotes() {
+        int wordCount = 1 + this.random.nextInt(8);
+        StringBuilder notes = new StringBuilder();
+        for (int i = 0; i < wordCount; i++) {
+            if (i > 0) {
+                notes.append(" ");
+            }
+            notes.append(NOTE_WORDS[this.random.nextInt(NOTE_WORDS.length)]);
+        }
+        return notes.toString() + ".";
+    }
+
+    /*
+     * Applies the operation to the calendar and returns a number derived from
+     * its result so that replayed reads cannot be optimized away. Returns -1 if
+     * the operation was rejected by the calendar.
+     */
+    static int apply(Calendar calendar, WorkloadTrace.Operation operation) {
+        try {
+            switch (operation.type) {
+                case INSERT:
+                    String[] insertFields = operation.getInsertFields();
+                    if (insertFields[1].equals("none")) {
+                        calendar.addEvent(operation.eventTitle, operation.eventDateTime, insertFields[0]);
+                    } else {
+                        calendar.addEvent(operation.eventTitle, operation.eventDateTime, insertFields[0],
+                                          insertFields[1]);
+                    }
+                    return 1;
+                case FIND:
+                    Event event = calendar.findEvent(operation.eventTitle, operation.eventDateTime);
+                    return event == null ? 0 : event.getEventNotes().length();
+                case UPDATE_TITLE:
+                    calendar.updateEventTitle(operation.eventTitle, operation.eventDateTime, operation.value);
+                    return 1;
+                case UPDATE_DATETIME:
+                    calendar.updateEventDateTime(operation.eventTitle, operation.eventDateTime,
+                                                 LocalDateTime.parse(operation.value));
+                    return 1;
+                case UPDATE_NOTES:
+                    calendar.updateEventNotes(operation.eventTitle, operation.eventDateTime, operation.value);
+                    return 1;
+                case DELETE:
+                    return calendar.removeEvent(operation.eventTitle, operation.eventDateTime) == null ? 0 : 1;
+                case VIEW:
+                    if (operation.value.equals("day")) {
+                        return calendar.viewDay(operation.eventDateTime.toLocalDate()).length();
+                    } else if (operation.value.equals("week")) {
+                        return calendar.viewWeek(operation.eventDateTime.toLocalDate()).length();
+                    } else {
+                        return calendar.toString().length();
+                    }
+                default:
+                    return -1;
+            }
+        } catch (InputMismatchException e) {
+            return -1;
+        }
+    }
+
+    /*
+     * Replays the trace against a fresh Calendar and returns a report of the run.
+     * A rate of 0 replays the operations as fast as possible.
+     */
+    static String replay(WorkloadTrace trace, double operationsPerSecond) {
+        WorkloadTrace.Operation[] operations = trace.getOperations().toArray(new WorkloadTrace.Operation[0]);
+        long[] latencies = new long[operations.length];
+        long intervalNanos = operationsPerSecond > 0 ? (long) (1e9 / operationsPerSecond) : 0;
+        long errors = 0;
+        long checksum = 0;
+
+        System.gc();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            pool.resetPeakUsage();
+        }
+        long gcCountBefore = Workload.totalGcCount();
+        long gcTimeBefore = Workload.totalGcTimeMillis();
+
+        Calendar calendar = new Calendar();
+        long startNanos = System.nanoTime();
+        for (int i = 0; i < operations.length; i++) {
+            long scheduledNanos = startNanos + i * intervalNanos;
+            while (intervalNanos > 0 && System.nanoTime() < scheduledNanos) {
+                // Busy wait, since sleeping is too coarse for high rates
+            }
+            long operationStartNanos = intervalNanos > 0 ? scheduledNanos : System.nanoTime();
+            int result = Workload.apply(calendar, operations[i]);
+            latencies[i] = System.nanoTime() - operationStartNanos;
+            if (result < 0) {
+                errors++;
+            } else {
+                checksum += result;
+            }
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+
+        long gcCount = Workload.totalGcCount() - gcCountBefore;
+        long gcTimeMillis = Workload.totalGcTimeMillis() - gcTimeBefore;
+        long peakHeapBytes = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peakHeapBytes += pool.getPeakUsage().getUsed();
+            }
+        }
+        long usedHeapBytes = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("  Operations: %d (%d errors), events on calendar: %d, checksum: %d\n",
+                                    operations.length, errors, calendar.eventsTreeMap.size(), checksum));
+        // An empty trace can finish within the resolution of nanoTime()
+        double throughput = elapsedNanos > 0 ? operations.length / (elapsedNanos / 1e9) : 0;
+        report.append(String.format("  Elapsed: %.3f s, throughput: %.0f ops/s\n", elapsedNanos / 1e9, throughput));
+        report.append(String.format("  Heap: %.1f MB used, %.1f MB peak; GC: %d collections, %d ms\n",
+                                    usedHeapBytes / 1048576.0, peakHeapBytes / 1048576.0, gcCount, gcTimeMillis));
+        report.append(Workload.formatLatencies("all", latencies));
+        for (WorkloadTrace.OperationType type : WorkloadTrace.OperationType.values()) {
+            int count = 0;
+            long[] typeLatencies = new long[operations.length];
+            for (int i = 0; i < operations.length; i++) {
+                if (operations[i].type == type) {
+                    typeLatencies[count++] = latencies[i];
+                }
+            }
+            if (count > 0) {
+                report.append(Workload.formatLatencies(type.name().toLowerCase(), Arrays.copyOf(typeLatencies, count)));
+            }
+        }
+        return report.toString();
+    }
+
+    private static String formatLatencies(String label, long[] latencies) {
+        if (latencies.length == 0) {
+            return String.format("  %-16s n=0\n", label);
+        }
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        return String.format("  %-16s n=%-8d p50=%8.1f us  p90=%8.1f us  p99=%8.1f us  p99.9=%8.1f us  max=%8.1f us\n",
+                             label, sorted.length, Workload.percentile(sorted, 0.5), Workload.percentile(sorted, 0.9),
+                             Workload.percentile(sorted, 0.99), Workload.percentile(sorted, 0.999),
+                             sorted[sorted.length - 1] / 1e3);
+    }
+
+    /*
+     * Returns the nearest-rank percentile of the sorted latencies in microseconds.
+     */
+    private static double percentile(long[] sorted, double fraction) {
+        int rank = (int) Math.ceil(fraction * sorted.length);
+        return sorted[Math.max(rank - 1, 0)] / 1e3;
+    }
+
+    private static long totalGcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(collector.getCollectionCount(), 0);
+        }
+        return count;
+    }
+
+    private static long totalGcTimeMillis() {
+        long time = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            time += Math.max(collector.getCollectionTime(), 0);
+        }
+        return time;
+    }
+
+    /*
+     * Parses "--name value" pairs following the command.
+     */
+    private static HashMap<String, String> parseOptions(String[] args) {
+        HashMap<String, String> options = new HashMap<String, String>();
+        for (int i = 1; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                throw new IllegalArgumentException("Expected \"--name value\" but found: " + args[i]);
+            } else if (!OPTION_NAMES.contains(args[i].substring(2))) {
+                throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+            options.put(args[i].substring(2), args[++i]);
+        }
+        return options;
+    }
+}
@@ -0,0 +1,159 @@
+package com.navroopsingh;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/*
+ * A list of calendar operations stored as text, one per line with tab-separated
+ * fields: type, event title, event datetime, value. For example:
+ *     insert	Thanksgiving	2015-11-26T18:00	Gather round.;none
+ *
+ * The value holds "notes;recurringType" for inserts, the new title, datetime, or
+ * notes for updates, and the range (day, week, all) for views. The first line
+ * records the base datetime (e.g. "# base 2015-11-24T09:00") so shiftedTo() can
+ * move a trace back inside the calendar's one-year window before it is replayed.
+ */
+class WorkloadTrace {
+    private static final String BASE_HEADER = "# base ";
+
+    enum OperationType {
+        INSERT, FIND, UPDATE_TITLE, UPDATE_DATETIME, UPDATE_NOTES, DELETE, VIEW
+    }
+
+    static class Operation {
+        final OperationType type;
+        final String eventTitle;
+        final LocalDateTime eventDateTime;
+        final String value;
+
+        Operation(OperationType type, String eventTitle, LocalDateTime eventDateTime, String value) {
+            this.type = type;
+            this.eventTitle = eventTitle;
+            this.eventDateTime = eventDateTime;
+            this.value = value;
+        }
+
+        static Operation insert(String eventTitle, LocalDateTime eventDateTime, String eventNotes,
+                                String recurringEvent) {
+            return new Operation(OperationType.INSERT, eventTitle, eventDateTime, eventNotes + ";" + recurringEvent);
+        }
+
+        static Operation view(String viewRange, LocalDateTime viewDateTime) {
+            return new Operation(OperationType.VIEW, "", viewDateTime, viewRange);
+        }
+
+        /*
+         * Returns [eventNotes, recurringEvent] for an insert. Notes may contain
+         * semicolons, so the recurring type is split off the end.
+         */
+        String[] getInsertFields() {
+            int separator = this.value.lastIndexOf(';');
+            return new String[] { this.value.substring(0, separator), this.value.substring(separator + 1) };
+        }
+
+        static Operation parse(String line) {
+            String[] fields = line.split("\t", -1);
+            // Inserts must carry "notes;recurringType" and views a known range in their value field
+            if (fields.length != 4 || (fields[0].equals("insert") && fields[3].lastIndexOf(';') < 0) ||
+                    (fields[0].equals("view") && !fields[3].matches("day|week|all"))) {
+                throw new IllegalArgumentException("Malformed trace line: " + line);
+            }
+            return new Operation(OperationType.valueOf(fields[0].toUpperCase()), fields[1],
+                                 LocalDateTime.parse(fields[2]), fields[3]);
+        }
+
+        @Override
+        public String toString() {
+            return this.type.name().toLowerCase() + "\t" + this.eventTitle + "\t" +
+                    this.eventDateTime.toString() + "\t" + this.value;
+        }
+    }
+
+    private final LocalDateTime baseDateTime;
+    private List<Operation> operations;
+
+    WorkloadTrace(LocalDateTime baseDateTime) {
+        this.baseDateTime = baseDateTime;
+        this.operations = new ArrayList<Operation>();
+    }
+
+    void add(Operation operation) {
+        this.operations.add(operation);
+    }
+
+    List<Operation> getOperations() {
+        return this.operations;
+    }
+
+    LocalDateTime getBaseDateTime() {
+        return this.baseDateTime;
+    }
+
+    /*
+     * Returns a copy of this trace with every datetime moved forward by the
+     * whole number of days between the base datetime and newBaseDateTime.
+     */
+    WorkloadTrace shiftedTo(LocalDateTime newBaseDateTime) {
+        long days = ChronoUnit.DAYS.between(this.baseDateTime, newBaseDateTime);
+        // Round up so that no event is shifted into the past
+        if (this.baseDateTime.plusDays(days).isBefore(newBaseDateTime)) {
+            days++;
+        }
+
+        WorkloadTrace shiftedTrace = new WorkloadTrace(this.baseDateTime.plusDays(days));
+        for (Operation operation : this.operations) {
+            String value = operation.value;
+            if (operation.type == OperationType.UPDATE_DATETIME) {
+                value = LocalDateTime.parse(value).plusDays(days).toString();
+            }
+            shiftedTrace.add(new Operation(operation.type, operation.eventTitle,
+                                           operation.eventDateTime.plusDays(days), value));
+        }
+        return shiftedTrace;
+    }
+
+    static WorkloadTrace read(Path path) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String header = reader.readLine();
+            if (header == null || !header.startsWith(BASE_HEADER)) {
+                throw new IOException("Trace is missing its \"" + BASE_HEADER.trim() + "\" header: " + path);
+            }
+
+            WorkloadTrace trace = new WorkloadTrace(LocalDateTime.parse(header.substring(BASE_HEADER.length())));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    trace.add(Operation.parse(line));
+                }
+            }
+            return trace;
+        }
+    }
+
+    void write(Path path) throws IOException {
+        try (PrintWriter writer = WorkloadTrace.openRecording(path, this.baseDateTime)) {
+            for (Operation operation : this.operations) {
+                writer.println(operation);
+            }
+        }
+    }
+
+    /*
+     * Opens a trace file for recording and writes its header. Used by Main to
+     * append operations one at a time as a session runs.
+     */
+    static PrintWriter openRecording(Path path, LocalDateTime baseDateTime) throws IOException {
+        PrintWriter writer = new PrintWriter(Files.newBufferedWriter(path, StandardCharsets.UTF_8));
+        writer.println(BASE_HEADER + baseDateTime.truncatedTo(ChronoUnit.MINUTES).toString());
+        return writer;
+    }
+}
@@ -0,0 +1,76 @@
+package com.navroopsingh;
+
+import org.junit.Before;
+import org.junit.Test;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class CalendarDigestTest {
+    Calendar primary;
+    Calendar replica;
+    LocalDateTime eventDateTime;
+
+    @Before
+    public void setUp() throws Exception {
+        primary = new Calendar();
+        replica = new Calendar();
+        eventDateTime = LocalDateTime.now().plusDays(2).withSecond(0).withNano(0);
+    }
+
+    @Test
+    public void testEmptyCalendarsMatch() throws Exception {
+        assertEquals(0, primary.getDigest().getRootHash());
+        assertTrue(primary.differingDays(replica).isEmpty());
+    }
+
+    @Test
+    public void testDifferingDays() throws Exception {
+        primary.addEvent("Team lunch", eventDateTime, "Bring a dish.");
+        replica.addEvent("Team lunch", eventDateTime, "Bring a dish.");
+        assertEquals(primary.getDigest().getRootHash(), replica.getDigest().getRootHash());
+
+        primary.updateEventNotes("Team lunch", eventDateTime, "Lunch is catered.");
+        List<LocalDate> days = primary.differingDays(replica);
+        assertEquals(1, days.size());
+        assertEquals(eventDateTime.toLocalDate(), days.get(0));
+    }
+
+    @Test
+    public void testUpdateChangesOnlyItsDay() throws Exception {
+        LocalDateTime laterDateTime = eventDateTime.plusDays(1);
+        primary.addEvent("Team lunch", eventDateTime, "Bring a dish.");
+        primary.addEvent("Standup", laterDateTime, "Daily sync.");
+        CalendarDigest digest = primary.getDigest();
+        long dayHash = digest.getDayHash(eventDateTime.toLocalDate());
+        long laterDayHash = digest.getDayHash(laterDateTime.toLocalDate());
+        assertNotEquals(0, dayHash);
+
+        primary.updateEventNotes("Team lunch", eventDateTime, "Lunch is catered.");
+        assertNotEquals(dayHash, digest.getDayHash(eventDateTime.toLocalDate()));
+        assertEquals(laterDayHash, digest.getDayHash(laterDateTime.toLocalDate()));
+        assertEquals(0, digest.getDayHash(eventDateTime.toLocalDate().minusDays(1)));
+    }
+
+    @Test
+    public void testReconcileWith() throws Exception {
+        primary.addEvent("Weekly review", eventDateTime, "Go over the week.", "weekly");
+        replica.reconcileWith(primary);
+        assertEquals(primary.toString(), replica.toString());
+
+        // Moving one occurrence only touches its old and new days
+        primary.updateEventDateTime("Weekly review", eventDateTime, eventDateTime.plusDays(1));
+        assertEquals(2, replica.reconcileWith(primary));
+        assertEquals(primary.toString(), replica.toString());
+        assertEquals(primary.getDigest().getRootHash(), replica.getDigest().getRootHash());
+    }
+
+    @Test
+    public void testRemoveEventRestoresDigest() throws Exception {
+        primary.addEvent("Dentist", eventDateTime, "Checkup.");
+        primary.removeEvent("Dentist", eventDateTime);
+        assertEquals(0, primary.getDigest().getRootHash());
+    }
+}
@@ -25,4 +25,10 @@ public class EventTest {
         assertEquals("11/26/2015 @ 6:00PM | Thanksgiving         | Notes: Gather round and give your thanks.", this.event.toString());
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testLongEventTitle() {
+        Event longEvent = new Event("A title that is quite long", LocalDateTime.of(2015, 11, 26, 18, 0), "Notes.");
+        assertTrue(longEvent.toString().contains("| A title that is quite long | Notes: Notes."));
+    }
+
+}
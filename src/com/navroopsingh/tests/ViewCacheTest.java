@@ -0,0 +1,68 @@
+package com.navroopsingh;
+
+import org.junit.Before;
+import org.junit.Test;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.Assert.*;
+
+public class ViewCacheTest {
+    Calendar calendar;
+    LocalDateTime eventDateTime;
+    LocalDate eventDate;
+
+    @Before
+    public void setUp() throws Exception {
+        calendar = new Calendar();
+        eventDateTime = LocalDateTime.now().plusDays(1).withSecond(0).withNano(0);
+        eventDate = eventDateTime.toLocalDate();
+        calendar.addEvent("Thanksgiving", eventDateTime, "Gather round and share the joy.");
+    }
+
+    @Test
+    public void testRepeatedViewIsCached() throws Exception {
+        String dayView = calendar.viewDay(eventDate);
+        assertTrue(dayView.contains("Thanksgiving"));
+        assertSame(dayView, calendar.viewDay(eventDate));
+        assertEquals(1, calendar.getViewCache().getHits());
+        assertEquals(1, calendar.getViewCache().getMisses());
+    }
+
+    @Test
+    public void testUpdateInvalidatesAffectedViews() throws Exception {
+        calendar.viewDay(eventDate);
+        calendar.viewWeek(eventDate);
+        calendar.updateEventNotes("Thanksgiving", eventDateTime, "Black Friday is tomorrow.");
+        assertTrue(calendar.viewDay(eventDate).contains("Black Friday is tomorrow."));
+        assertTrue(calendar.viewWeek(eventDate).contains("Black Friday is tomorrow."));
+        assertEquals(4, calendar.getViewCache().getMisses());
+    }
+
+    @Test
+    public void testUpdateKeepsUnaffectedViews() throws Exception {
+        LocalDate laterDate = eventDate.plusWeeks(2);
+        calendar.viewWeek(laterDate);
+        calendar.removeEvent("Thanksgiving", eventDateTime);
+        calendar.viewWeek(laterDate);
+        assertEquals(1, calendar.getViewCache().getHits());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedViewIsEvicted() throws Exception {
+        ViewCache viewCache = new ViewCache(2);
+        viewCache.putDayView(eventDate, "first");
+        viewCache.putDayView(eventDate.plusDays(1), "second");
+        viewCache.getDayView(eventDate);
+        viewCache.putDayView(eventDate.plusDays(2), "third");
+        assertEquals(2, viewCache.size());
+        assertEquals(1, viewCache.getEvictions());
+        assertEquals("first", viewCache.getDayView(eventDate));
+        assertNull(viewCache.getDayView(eventDate.plusDays(1)));
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testRejectsEmptyCache() throws Exception {
+        new ViewCache(0);
+    }
+}
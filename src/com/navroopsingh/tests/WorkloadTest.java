@@ -0,0 +1,140 @@
+package com.navroopsingh;
+
+import org.junit.Before;
+import org.junit.Test;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+public class WorkloadTest {
+    LocalDateTime baseDateTime;
+
+    @Before
+    public void setUp() throws Exception {
+        baseDateTime = LocalDateTime.now().withSecond(0).withNano(0);
+    }
+
+    @Test
+    public void testGenerateIsReproducible() throws Exception {
+        List<WorkloadTrace.Operation> first = new Workload(7, baseDateTime).generate(50, 500).getOperations();
+        List<WorkloadTrace.Operation> second = new Workload(7, baseDateTime).generate(50, 500).getOperations();
+        assertEquals(550, first.size());
+        for (int i = 0; i < first.size(); i++) {
+            assertEquals(first.get(i).toString(), second.get(i).toString());
+        }
+    }
+
+    @Test
+    public void testOperationRoundTrip() throws Exception {
+        WorkloadTrace.Operation insert = WorkloadTrace.Operation.insert("Thanksgiving", baseDateTime.plusDays(3),
+                                                                        "Turkey; stuffing.", "weekly");
+        WorkloadTrace.Operation parsed = WorkloadTrace.Operation.parse(insert.toString());
+        assertEquals(WorkloadTrace.OperationType.INSERT, parsed.type);
+        assertEquals("Thanksgiving", parsed.eventTitle);
+        assertEquals("Turkey; stuffing.", parsed.getInsertFields()[0]);
+        assertEquals("weekly", parsed.getInsertFields()[1]);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testParseInsertWithoutRecurringType() throws Exception {
+        WorkloadTrace.Operation.parse("insert\tThanksgiving\t" + baseDateTime.toString() + "\tGather round.");
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testParseViewWithUnknownRange() throws Exception {
+        WorkloadTrace.Operation.parse("view\t\t" + baseDateTime.toString() + "\tmonth");
+    }
+
+    @Test
+    public void testShiftedTo() throws Exception {
+        WorkloadTrace trace = new WorkloadTrace(baseDateTime);
+        trace.add(new WorkloadTrace.Operation(WorkloadTrace.OperationType.UPDATE_DATETIME, "Thanksgiving",
+                                              baseDateTime.plusDays(1), baseDateTime.plusDays(2).toString()));
+        WorkloadTrace shiftedTrace = trace.shiftedTo(baseDateTime.plusDays(10).plusHours(1));
+        WorkloadTrace.Operation operation = shiftedTrace.getOperations().get(0);
+        assertEquals(baseDateTime.plusDays(12), operation.eventDateTime);
+        assertEquals(baseDateTime.plusDays(13).toString(), operation.value);
+    }
+
+    @Test
+    public void testReplayEmptyTrace() throws Exception {
+        String report = Workload.replay(new WorkloadTrace(baseDateTime), 0);
+        assertTrue(report.contains("Operations: 0 (0 errors)"));
+        assertTrue(report.contains("n=0"));
+    }
+
+    @Test
+    public void testReplayMatchesGenerator() throws Exception {
+        Workload workload = new Workload(7, baseDateTime);
+        WorkloadTrace trace = workload.generate(50, 500);
+        Calendar calendar = new Calendar();
+        for (WorkloadTrace.Operation operation : trace.getOperations()) {
+            Workload.apply(calendar, operation);
+        }
+        assertFalse(calendar.eventsTreeMap.isEmpty());
+        assertEquals(workload.calendar.getDigest().getRootHash(), calendar.getDigest().getRootHash());
+    }
+
+    @Test
+    public void testGeneratedOperationsMostlyHitEvents() throws Exception {
+        WorkloadTrace trace = new Workload(7, baseDateTime).generate(50, 500);
+        Matcher matcher = Pattern.compile("Operations: (\\d+) \\((\\d+) errors\\)").matcher(Workload.replay(trace, 0));
+        assertTrue(matcher.find());
+        assertEquals(550, Integer.parseInt(matcher.group(1)));
+        assertTrue(Integer.parseInt(matcher.group(2)) < Workload.MISSING_EVENT_FRACTION * 550);
+    }
+
+    @Test
+    public void testTraceFileRoundTrip() throws Exception {
+        WorkloadTrace trace = new Workload(7, baseDateTime).generate(20, 200);
+        Path path = Files.createTempFile("workload", ".txt");
+        try {
+            trace.write(path);
+            WorkloadTrace readTrace = WorkloadTrace.read(path);
+            assertEquals(trace.getBaseDateTime(), readTrace.getBaseDateTime());
+            assertEquals(trace.getOperations().size(), readTrace.getOperations().size());
+            for (int i = 0; i < trace.getOperations().size(); i++) {
+                assertEquals(trace.getOperations().get(i).toString(), readTrace.getOperations().get(i).toString());
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void testReplayRecordedSession() throws Exception {
+        // Record a session the way Main does, starting a few days ago
+        LocalDateTime sessionDateTime = baseDateTime.minusDays(3);
+        LocalDateTime lunchDateTime = sessionDateTime.plusDays(5);
+        Path path = Files.createTempFile("session", ".txt");
+        try {
+            PrintWriter writer = WorkloadTrace.openRecording(path, sessionDateTime);
+            writer.println(WorkloadTrace.Operation.insert("Lunch", lunchDateTime, "With team.", "none"));
+            // A delete of a missing event only records its lookup
+            writer.println(new WorkloadTrace.Operation(WorkloadTrace.OperationType.FIND, "Dinner", lunchDateTime, ""));
+            writer.println(new WorkloadTrace.Operation(WorkloadTrace.OperationType.FIND, "Lunch", lunchDateTime, ""));
+            writer.println(new WorkloadTrace.Operation(WorkloadTrace.OperationType.UPDATE_NOTES, "Lunch", lunchDateTime,
+                                                       "Catered."));
+            writer.println(WorkloadTrace.Operation.view("day", lunchDateTime.toLocalDate().atStartOfDay()));
+            writer.close();
+
+            WorkloadTrace trace = WorkloadTrace.read(path).shiftedTo(LocalDateTime.now());
+            assertEquals(5, trace.getOperations().size());
+            Calendar calendar = new Calendar();
+            for (WorkloadTrace.Operation operation : trace.getOperations()) {
+                assertTrue(Workload.apply(calendar, operation) >= 0);
+            }
+            Event lunch = calendar.findEvent("Lunch", trace.getOperations().get(0).eventDateTime);
+            assertNotNull(lunch);
+            assertEquals("Catered.", lunch.getEventNotes());
+        } finally {
+            Files.delete(path);
+        }
+    }
+}